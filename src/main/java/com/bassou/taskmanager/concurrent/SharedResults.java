@@ -0,0 +1,36 @@
+package com.bassou.taskmanager.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Attente du résultat d'une exécution partagée entre plusieurs requêtes (IdempotencyStore, SingleFlight).
+ * L'exécution d'origine complète toujours le futur, y compris quand elle lève une Error ;
+ * les requêtes en attente reçoivent alors le même échec, relancé tel quel.
+ */
+public final class SharedResults {
+
+    private SharedResults() {}
+
+    /**
+     * Attend le résultat au plus {@code timeoutNanos}. Une interruption est traitée comme un
+     * abandon de l'attente : le statut d'interruption est restauré et TimeoutException est levée.
+     */
+    public static <T> T await(CompletableFuture<T> result, long timeoutNanos) throws TimeoutException {
+        try {
+            return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a shared result");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.bassou.taskmanager.controller;
 
+import com.bassou.taskmanager.idempotency.IdempotencyStore;
 import com.bassou.taskmanager.model.Task;
+import com.bassou.taskmanager.service.TaskNotFoundException;
 import com.bassou.taskmanager.service.TaskService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -17,10 +20,12 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
+    private final IdempotencyStore idempotencyStore;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, IdempotencyStore idempotencyStore) {
         this.taskService = taskService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @GetMapping
@@ -36,40 +41,53 @@ public class TaskController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Les écritures acceptent un en-tête Idempotency-Key : une requête rejouée renvoie la réponse d'origine
     @PostMapping
-    public ResponseEntity<Task> createTask(@Valid @RequestBody Task task) {
-        Task createdTask = taskService.createTask(task);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdTask);
+    public ResponseEntity<Task> createTask(@Valid @RequestBody Task task,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "POST /api/tasks", fingerprint(task), () -> {
+            Task createdTask = taskService.createTask(task);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdTask);
+        });
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task taskDetails) {
-        try {
-             Task updatedTask = taskService.updateTask(id, taskDetails);
-             return ResponseEntity.ok(updatedTask);
-        }catch (Exception ex){
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task taskDetails,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "PUT /api/tasks/" + id, fingerprint(taskDetails), () -> {
+            try {
+                 Task updatedTask = taskService.updateTask(id, taskDetails);
+                 return ResponseEntity.ok(updatedTask);
+            }catch (TaskNotFoundException ex){
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     @PatchMapping("/{id}/toggle")
-    public ResponseEntity<Task> toggleTaskCompletion(@PathVariable Long id) {
-        try {
-            Task updatedTask = taskService.toggleTaskCompletion(id);
-            return ResponseEntity.ok(updatedTask);
-        } catch (Exception ex){
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Task> toggleTaskCompletion(@PathVariable Long id,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "PATCH /api/tasks/" + id + "/toggle", 0, () -> {
+            try {
+                Task updatedTask = taskService.toggleTaskCompletion(id);
+                return ResponseEntity.ok(updatedTask);
+            } catch (TaskNotFoundException ex){
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
-        try{
-            taskService.deleteTask(id);
-            return ResponseEntity.noContent().build();
-        }catch (Exception ex){
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Void> deleteTask(@PathVariable Long id,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "DELETE /api/tasks/" + id, 0, () -> {
+            try{
+                taskService.deleteTask(id);
+                return ResponseEntity.noContent().build();
+            }catch (TaskNotFoundException ex){
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     @GetMapping("/status/{completed}")
@@ -83,4 +101,10 @@ public class TaskController {
         List<Task> tasks = taskService.searchTasksByTitle(title);
         return ResponseEntity.ok(tasks);
     }
+
+    // Empreinte du contenu d'une écriture : une Idempotency-Key réutilisée avec un autre contenu est refusée
+    private static int fingerprint(Task task) {
+        return Objects.hash(task.getTitle(), task.getDescription(), task.getPriority(),
+                task.isCompleted(), task.getDueDate());
+    }
 }
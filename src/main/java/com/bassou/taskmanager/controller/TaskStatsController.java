@@ -0,0 +1,37 @@
+package com.bassou.taskmanager.controller;
+
+import com.bassou.taskmanager.model.TaskStatsBucket;
+import com.bassou.taskmanager.service.TaskStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tasks/stats")
+@CrossOrigin(origins = "*")
+public class TaskStatsController {
+
+    private final TaskStatsService taskStatsService;
+
+    @Autowired
+    public TaskStatsController(TaskStatsService taskStatsService) {
+        this.taskStatsService = taskStatsService;
+    }
+
+    // Ex : /api/tasks/stats?granularity=WEEK&from=2024-01-01&to=2024-03-31 (par défaut : 30 derniers jours)
+    @GetMapping
+    public ResponseEntity<List<TaskStatsBucket>> getStats(
+            @RequestParam(defaultValue = "DAY") TaskStatsService.Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(taskStatsService.getStats(granularity, from, to));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
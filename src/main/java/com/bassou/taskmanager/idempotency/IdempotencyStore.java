@@ -0,0 +1,159 @@
+package com.bassou.taskmanager.idempotency;
+
+import com.bassou.taskmanager.concurrent.SharedResults;
+import com.bassou.taskmanager.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Réponses des requêtes d'écriture indexées par en-tête Idempotency-Key.
+ * Un client qui rejoue une requête après un timeout reçoit la réponse d'origine au lieu
+ * de créer un doublon ou de rebasculer la tâche. Les requêtes identiques simultanées
+ * attendent l'exécution en cours : une seule atteint TaskService. Un doublon en attente
+ * n'utilise pas de connexion et rend sa place dans le budget du tenant (cf. TenantLimiter) ;
+ * son attente est bornée par {@code wait-timeout}, au-delà il reçoit 409 et peut réessayer.
+ * <p>
+ * Le store est borné en nombre d'entrées et chaque entrée expire après le TTL ; la durée de vie
+ * étant la même pour toutes, l'ordre d'insertion est aussi l'ordre d'expiration et la purge
+ * ne parcourt que la tête de la table.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long waitTimeoutNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries;
+
+    @Autowired
+    public IdempotencyStore(@Value("${taskmanager.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${taskmanager.idempotency.ttl:PT1H}") Duration ttl,
+                            @Value("${taskmanager.idempotency.wait-timeout:PT5S}") Duration waitTimeout) {
+        this(maxEntries, ttl, waitTimeout, System::nanoTime);
+    }
+
+    IdempotencyStore(int maxEntries, Duration ttl, Duration waitTimeout, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Exécute l'action une seule fois par (tenant, opération, clé) tant que la réponse est conservée.
+     * Sans clé, l'action est exécutée directement. L'empreinte identifie le contenu de la requête :
+     * une clé réutilisée avec un autre contenu est refusée (422) au lieu de rejouer une réponse
+     * sans rapport. Les réponses 5xx et les exceptions ne sont pas conservées, afin que le client
+     * puisse réessayer.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, String operation, int fingerprint,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String storeKey = TenantContext.getTenantId() + '|' + operation + '|' + key;
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        Entry existing;
+        synchronized (entries) {
+            long now = clock.getAsLong();
+            purgeExpired(now);
+            existing = entries.get(storeKey);
+            if (existing == null) {
+                entries.put(storeKey, new Entry(pending, fingerprint, now + ttlNanos));
+            }
+        }
+
+        if (existing != null) {
+            if (existing.fingerprint != fingerprint) {
+                return ResponseEntity.unprocessableEntity().build();
+            }
+            TenantContext.releasePermit();
+            StoredResponse stored;
+            try {
+                stored = SharedResults.await(existing.response, waitTimeoutNanos);
+            } catch (TimeoutException ex) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return (ResponseEntity<T>) ResponseEntity.status(stored.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(stored.body());
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (Throwable ex) {
+            // Toute erreur libère la clé pour que le client puisse réessayer
+            remove(storeKey, pending);
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            remove(storeKey, pending);
+        }
+        pending.complete(new StoredResponse(response.getStatusCode().value(), response.getBody()));
+        return response;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String storeKey, CompletableFuture<StoredResponse> pending) {
+        synchronized (entries) {
+            Entry current = entries.get(storeKey);
+            if (current != null && current.response == pending) {
+                entries.remove(storeKey);
+            }
+        }
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now - entry.expiresAt < 0) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    // Seuls le statut et le corps sont conservés, pas les en-têtes de la réponse
+    private record StoredResponse(int status, Object body) {
+    }
+
+    private record Entry(CompletableFuture<StoredResponse> response, int fingerprint, long expiresAt) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.bassou.taskmanager.model;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne d'agrégat renvoyée par les requêtes GROUP BY de TaskRepository :
+ * nombre de tâches pour un jour, une priorité et un statut donnés.
+ */
+public record DailyTaskCount(LocalDate day, Task.Priority priority, Boolean completed, Long count) {
+}
@@ -1,5 +1,8 @@
 package com.bassou.taskmanager.model;
 
+import com.bassou.taskmanager.tenant.TenantContext;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,13 +10,24 @@ import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // Index composites préfixés par le tenant : chaque requête ne parcourt que les lignes de son équipe
+        @Index(name = "idx_tasks_tenant_created", columnList = "tenant_id, create_at"),
+        @Index(name = "idx_tasks_tenant_completed", columnList = "tenant_id, completed"),
+        @Index(name = "idx_tasks_tenant_priority", columnList = "tenant_id, priority"),
+        @Index(name = "idx_tasks_tenant_completed_at", columnList = "tenant_id, completed_at")
+})
 public class Task {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Équipe propriétaire de la tâche, renseignée par TaskService à partir du TenantContext
+    @JsonIgnore
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 64)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
     @NotBlank(message = "Le titre est obligatoire")
     @Size(min = 3, max = 100, message = "Le titre doit contenir entre 3 et 100 caracteres")
     private String title;
@@ -38,6 +52,11 @@ public class Task {
     @Column(name = "due_date")
     private LocalDateTime dueDate;
 
+    // Date de passage à l'état complété, utilisée pour le débit de complétion des statistiques
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
 
     public Task() {}
     public Task(String title, String description) {
@@ -49,10 +68,20 @@ public class Task {
     public void onCreate() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        syncCompletedAt();
     }
     @PreUpdate
     public void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        syncCompletedAt();
+    }
+
+    private void syncCompletedAt() {
+        if (!completed) {
+            this.completedAt = null;
+        } else if (completedAt == null) {
+            this.completedAt = LocalDateTime.now();
+        }
     }
 
 
@@ -64,6 +93,14 @@ public class Task {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -120,6 +157,14 @@ public class Task {
         this.dueDate = dueDate;
     }
 
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
     public enum Priority {
         LOW("Basse"),
         MEDIUM("Moyenne"),
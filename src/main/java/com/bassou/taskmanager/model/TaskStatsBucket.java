@@ -0,0 +1,18 @@
+package com.bassou.taskmanager.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Statistiques d'un intervalle (jour ou semaine commençant le lundi) :
+ * tâches créées par priorité et par statut actuel, et complétions enregistrées sur l'intervalle.
+ */
+public record TaskStatsBucket(
+        LocalDate start,
+        long created,
+        long open,
+        long done,
+        Map<Task.Priority, Long> createdByPriority,
+        long completions,
+        Map<Task.Priority, Long> completionsByPriority) {
+}
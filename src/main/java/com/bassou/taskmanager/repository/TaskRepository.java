@@ -1,10 +1,15 @@
 package com.bassou.taskmanager.repository;
 
 import jakarta.annotation.Priority;
+import com.bassou.taskmanager.model.DailyTaskCount;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.bassou.taskmanager.model.Task;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 
@@ -19,4 +24,28 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findAllByOrderByCreatedAtDesc();
     // Tâches non complétées triées par priorité
     List<Task> findByCompletedOrderByPriorityDesc(boolean completed);
+
+    // ========== Requêtes filtrées par tenant (index composites tenant_id, ...) ==========
+
+    Optional<Task> findByIdAndTenantId(Long id, String tenantId);
+    List<Task> findByTenantIdOrderByCreatedAtDesc(String tenantId);
+    List<Task> findByTenantIdAndCompleted(String tenantId, boolean completed);
+    List<Task> findByTenantIdAndPriority(String tenantId, Task.Priority priority);
+    List<Task> findByTenantIdAndTitleContainingIgnoreCase(String tenantId, String title);
+
+    // ========== Agrégats journaliers pour les statistiques (intervalle [from, to[) ==========
+
+    @Query("select new com.bassou.taskmanager.model.DailyTaskCount(cast(t.createdAt as LocalDate), t.priority, t.completed, count(t)) " +
+            "from Task t where t.tenantId = :tenantId and t.createdAt >= :from and t.createdAt < :to " +
+            "group by cast(t.createdAt as LocalDate), t.priority, t.completed")
+    List<DailyTaskCount> countCreatedPerDay(@Param("tenantId") String tenantId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select new com.bassou.taskmanager.model.DailyTaskCount(cast(t.completedAt as LocalDate), t.priority, true, count(t)) " +
+            "from Task t where t.tenantId = :tenantId and t.completedAt >= :from and t.completedAt < :to " +
+            "group by cast(t.completedAt as LocalDate), t.priority")
+    List<DailyTaskCount> countCompletedPerDay(@Param("tenantId") String tenantId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,162 @@
+package com.bassou.taskmanager.service;
+
+import com.bassou.taskmanager.concurrent.SharedResults;
+import com.bassou.taskmanager.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fusion des lectures identiques simultanées (single-flight) : tant qu'une requête est en cours
+ * pour un même (tenant, opération, argument), les appels suivants attendent son résultat
+ * au lieu d'interroger la base. Avec une fenêtre de cache non nulle, le résultat reste
+ * partagé pendant cette durée après la fin de la requête ; au-delà, il n'est plus servi.
+ * Les écritures d'un tenant invalident ses entrées (après le commit) : un appel postérieur
+ * à l'écriture démarre toujours une nouvelle requête.
+ * <p>
+ * Un appelant fusionné n'utilise pas de connexion : il rend sa place dans le budget du tenant
+ * (cf. TenantLimiter) avant d'attendre, pour que les rafraîchissements simultanés ne soient pas
+ * limités à la taille de ce budget. Pour qu'un tenant ne puisse pas pour autant occuper tous les
+ * threads du serveur derrière une requête lente, au plus {@code max-waiters} appels attendent
+ * une même requête (les suivants reçoivent 429) et chacun attend au plus {@code wait-timeout} (503).
+ */
+@Component
+public class SingleFlight {
+
+    private final long cacheWindowNanos;
+    private final int maxWaiters;
+    private final long waitTimeoutNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, Call> calls = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @Autowired
+    public SingleFlight(@Value("${taskmanager.single-flight.cache-window:0ms}") Duration cacheWindow,
+                        @Value("${taskmanager.single-flight.max-waiters:16}") int maxWaiters,
+                        @Value("${taskmanager.single-flight.wait-timeout:PT5S}") Duration waitTimeout,
+                        MeterRegistry meterRegistry) {
+        this.cacheWindowNanos = cacheWindow.toNanos();
+        this.maxWaiters = maxWaiters;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("taskmanager.reads.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Part des lectures servies par une requête déjà en cours")
+                .register(meterRegistry);
+    }
+
+    // Le résultat est partagé entre appelants : il doit être traité en lecture seule
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object argument, Supplier<T> query) {
+        Key key = new Key(TenantContext.getTenantId(), operation, argument);
+        Call call = new Call();
+        Call existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return (T) join(key, existing);
+        }
+
+        record(operation, "executed", executed);
+        T result;
+        try {
+            result = query.get();
+        } catch (Throwable ex) {
+            // L'échec est transmis aux appels déjà en attente, mais jamais partagé avec les suivants
+            calls.remove(key, call);
+            call.result.completeExceptionally(ex);
+            throw ex;
+        }
+        call.result.complete(result);
+        if (cacheWindowNanos > 0) {
+            CompletableFuture.delayedExecutor(cacheWindowNanos, TimeUnit.NANOSECONDS)
+                    .execute(() -> calls.remove(key, call));
+        } else {
+            calls.remove(key, call);
+        }
+        return result;
+    }
+
+    /**
+     * Oublie les lectures du tenant, en cours ou en cache : les appels suivants relancent une requête.
+     * Dans une transaction, l'invalidation est répétée après le commit, sinon une requête démarrée
+     * avant le commit pourrait encore être partagée avec des appels postérieurs à l'écriture.
+     */
+    public void invalidate(String tenantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeTenant(tenantId);
+                }
+            });
+        }
+        removeTenant(tenantId);
+    }
+
+    private Object join(Key key, Call call) {
+        boolean waiting = !call.result.isDone();
+        if (waiting) {
+            if (call.waiters.incrementAndGet() > maxWaiters) {
+                call.waiters.decrementAndGet();
+                meterRegistry.counter("taskmanager.reads", "operation", key.operation(), "outcome", "rejected").increment();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many identical reads waiting");
+            }
+            TenantContext.releasePermit();
+        }
+        record(key.operation(), "coalesced", coalesced);
+        try {
+            return SharedResults.await(call.result, waitTimeoutNanos);
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for an identical read");
+        } finally {
+            if (waiting) {
+                call.waiters.decrementAndGet();
+            }
+        }
+    }
+
+    double coalescingRatio() {
+        long coalescedCount = coalesced.get();
+        long total = executed.get() + coalescedCount;
+        return total == 0 ? 0.0 : (double) coalescedCount / total;
+    }
+
+    private void removeTenant(String tenantId) {
+        calls.keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    }
+
+    private void record(String operation, String outcome, AtomicLong total) {
+        total.incrementAndGet();
+        Counter.builder("taskmanager.reads")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Key(String tenantId, String operation, Object argument) {
+    }
+
+    // Requête partagée et nombre d'appels qui attendent son résultat
+    private static final class Call {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
@@ -0,0 +1,9 @@
+package com.bassou.taskmanager.service;
+
+// Tâche inexistante ou appartenant à un autre tenant
+public class TaskNotFoundException extends RuntimeException {
+
+    public TaskNotFoundException(Long id) {
+        super("Task not found with id " + id);
+    }
+}
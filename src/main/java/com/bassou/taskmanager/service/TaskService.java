@@ -2,8 +2,11 @@ package com.bassou.taskmanager.service;
 
 import com.bassou.taskmanager.model.Task;
 import com.bassou.taskmanager.repository.TaskRepository;
+import com.bassou.taskmanager.tenant.TenantContext;
+import com.bassou.taskmanager.tenant.TenantLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -14,26 +17,45 @@ import java.util.Optional;
 public class TaskService {
 
     private final TaskRepository taskRepository;
+    private final TenantLimiter tenantLimiter;
+    private final TaskStatsService taskStatsService;
+    private final SingleFlight singleFlight;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository, TenantLimiter tenantLimiter,
+                       TaskStatsService taskStatsService, SingleFlight singleFlight) {
         this.taskRepository = taskRepository;
+        this.tenantLimiter = tenantLimiter;
+        this.taskStatsService = taskStatsService;
+        this.singleFlight = singleFlight;
     }
 
+    // Lectures de listes fusionnées par SingleFlight ; hors transaction pour qu'un appelant
+    // en attente du résultat partagé ne monopolise pas une connexion du pool.
+    // Les listes sont immuables : le même résultat peut être renvoyé à plusieurs appelants
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Task> getAllTasks() {
-        return taskRepository.findAllByOrderByCreatedAtDesc();
+        String tenantId = TenantContext.getTenantId();
+        List<Task> tasks = singleFlight.execute("all", null, () ->
+                List.copyOf(taskRepository.findByTenantIdOrderByCreatedAtDesc(tenantId)));
+        return recordRows(tenantId, "all", tasks);
     }
 
     public Optional<Task> getTaskById(Long id) {
-        return taskRepository.findById(id);
+        return taskRepository.findByIdAndTenantId(id, TenantContext.getTenantId());
     }
 
     public Task createTask(Task task) {
-        return taskRepository.save(task);
+        task.setTenantId(TenantContext.getTenantId());
+        Task createdTask = taskRepository.save(task);
+        // Une création validée juste après minuit appartient à un jour déjà clos
+        invalidateCaches(createdTask);
+        return createdTask;
     }
 
     public Task updateTask(Long id, Task taskDetails) {
-        Task task = taskRepository.findById(id).orElseThrow(() -> new RuntimeException("Task not found with id " + id));
+        Task task = findOwnedTask(id);
+        invalidateCaches(task);
 
         task.setTitle(taskDetails.getTitle());
         task.setDescription(taskDetails.getDescription());
@@ -48,29 +70,60 @@ public class TaskService {
 
 
     public Task toggleTaskCompletion(Long id) {
-        Task task = taskRepository.findById(id).orElseThrow(() -> new RuntimeException("Task not found with id " + id));
+        Task task = findOwnedTask(id);
+        invalidateCaches(task);
         task.setCompleted(!task.isCompleted());
         return taskRepository.save(task);
     }
 
 
     public void deleteTask(Long id) {
-        if  (!taskRepository.existsById(id)) {
-            throw new RuntimeException("Task not found with id " + id);
-        }
-        taskRepository.deleteById(id);
+        Task task = findOwnedTask(id);
+        invalidateCaches(task);
+        taskRepository.delete(task);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Task> getTasksByStatus(boolean completed) {
-        return taskRepository.findByCompleted(completed);
+        String tenantId = TenantContext.getTenantId();
+        List<Task> tasks = singleFlight.execute("status", completed, () ->
+                List.copyOf(taskRepository.findByTenantIdAndCompleted(tenantId, completed)));
+        return recordRows(tenantId, "status", tasks);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Task> searchTasksByTitle(String title) {
-        return taskRepository.findByTitleContainingIgnoreCase(title);
+        String tenantId = TenantContext.getTenantId();
+        List<Task> tasks = singleFlight.execute("search", title, () ->
+                List.copyOf(taskRepository.findByTenantIdAndTitleContainingIgnoreCase(tenantId, title)));
+        return recordRows(tenantId, "search", tasks);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Task> getTasksByPriority(Task.Priority priority) {
-        return taskRepository.findByPriority(priority);
+        String tenantId = TenantContext.getTenantId();
+        List<Task> tasks = singleFlight.execute("priority", priority, () ->
+                List.copyOf(taskRepository.findByTenantIdAndPriority(tenantId, priority)));
+        return recordRows(tenantId, "priority", tasks);
+    }
+
+    // Une tâche d'un autre tenant est traitée comme inexistante
+    private Task findOwnedTask(Long id) {
+        return taskRepository.findByIdAndTenantId(id, TenantContext.getTenantId())
+                .orElseThrow(() -> new TaskNotFoundException(id));
+    }
+
+    // Les jours de création et de complétion de la tâche ne sont plus à jour dans les statistiques,
+    // et les lectures partagées du tenant ne doivent plus être servies
+    private void invalidateCaches(Task task) {
+        taskStatsService.evict(task.getTenantId(), task.getCreatedAt(), task.getCompletedAt());
+        singleFlight.invalidate(task.getTenantId());
+    }
+
+    // Enregistré pour chaque appel, y compris ceux servis par une requête partagée
+    private List<Task> recordRows(String tenantId, String operation, List<Task> tasks) {
+        tenantLimiter.recordRows(tenantId, operation, tasks.size());
+        return tasks;
     }
 
 }
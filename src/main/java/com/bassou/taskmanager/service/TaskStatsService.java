@@ -0,0 +1,284 @@
+package com.bassou.taskmanager.service;
+
+import com.bassou.taskmanager.model.DailyTaskCount;
+import com.bassou.taskmanager.model.Task;
+import com.bassou.taskmanager.model.TaskStatsBucket;
+import com.bassou.taskmanager.repository.TaskRepository;
+import com.bassou.taskmanager.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Agrégats de création et de complétion par jour ou par semaine.
+ * Les jours clos sont calculés une seule fois par GROUP BY puis conservés en mémoire par tenant ;
+ * seul le jour courant est recalculé à chaque appel. Les jours absents du cache sont agrégés par
+ * plages contiguës, de sorte qu'un jour invalidé ne fait pas recalculer les jours en cache qui le suivent. Toute écriture invalide, après le commit,
+ * les jours de création et de complétion de la tâche concernée.
+ * <p>
+ * Le cache est borné : seuls les {@code cached-days} derniers jours sont conservés (les jours plus
+ * anciens sont recalculés à chaque appel) et seuls les {@code max-tenants} tenants les plus récemment
+ * consultés gardent un cache ; les écritures d'un tenant sans cache ne lui en créent pas.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TaskStatsService {
+
+    public enum Granularity { DAY, WEEK }
+
+    static final int MAX_RANGE_DAYS = 366;
+    static final int DEFAULT_RANGE_DAYS = 30;
+
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+
+    private final TaskRepository taskRepository;
+    private final Clock clock;
+    private final int cachedDays;
+    private final Map<String, TenantDays> cache;
+
+    @Autowired
+    public TaskStatsService(TaskRepository taskRepository,
+                            @Value("${taskmanager.stats.cached-days:90}") int cachedDays,
+                            @Value("${taskmanager.stats.max-tenants:100}") int maxTenants) {
+        this(taskRepository, Clock.systemDefaultZone(), cachedDays, maxTenants);
+    }
+
+    TaskStatsService(TaskRepository taskRepository, Clock clock, int cachedDays, int maxTenants) {
+        this.taskRepository = taskRepository;
+        this.clock = clock;
+        this.cachedDays = cachedDays;
+        // LRU : le tenant consulté le moins récemment perd son cache. L'ordre est mis à jour
+        // explicitement par getStats (cf. tenantDays), pas par les invalidations des écritures
+        this.cache = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TenantDays> eldest) {
+                return size() > maxTenants;
+            }
+        };
+    }
+
+    public List<TaskStatsBucket> getStats(Granularity granularity, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now(clock);
+        if (to == null || to.isAfter(today)) {
+            to = today;
+        }
+        if (from == null) {
+            from = to.minusDays(DEFAULT_RANGE_DAYS - 1);
+        }
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Invalid range " + from + " - " + to);
+        }
+
+        String tenantId = TenantContext.getTenantId();
+        TenantDays tenantDays = tenantDays(tenantId);
+        LocalDate oldestCached = today.minusDays(cachedDays);
+        tenantDays.prune(oldestCached);
+
+        Map<LocalDate, DayStats> days = new TreeMap<>();
+        List<DayRange> missing = new ArrayList<>();
+        LocalDate missingFrom = null;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayStats cached = isCacheable(day, today, oldestCached) ? tenantDays.days.get(day) : null;
+            if (cached != null) {
+                days.put(day, cached);
+                if (missingFrom != null) {
+                    missing.add(new DayRange(missingFrom, day));
+                    missingFrom = null;
+                }
+            } else if (missingFrom == null) {
+                missingFrom = day;
+            }
+        }
+        if (missingFrom != null) {
+            missing.add(new DayRange(missingFrom, to.plusDays(1)));
+        }
+
+        for (DayRange range : missing) {
+            long epoch = tenantDays.epoch();
+            Map<LocalDate, DayStats> computed = aggregate(tenantId, range.from(), range.toExclusive());
+            for (LocalDate day = range.from(); day.isBefore(range.toExclusive()); day = day.plusDays(1)) {
+                DayStats stats = computed.getOrDefault(day, DayStats.EMPTY);
+                days.put(day, stats);
+                if (isCacheable(day, today, oldestCached)) {
+                    tenantDays.putIfUnchanged(day, stats, epoch);
+                }
+            }
+        }
+
+        return rollUp(days, granularity);
+    }
+
+    /**
+     * Invalide les jours correspondant aux dates fournies (création, complétion) pour le tenant.
+     * Dans une transaction, l'invalidation n'a lieu qu'après le commit et le cache du tenant n'est
+     * résolu qu'à ce moment-là. S'il n'existe pas, il n'y a rien à invalider : un cache créé ensuite
+     * ne peut être alimenté que par des requêtes lancées après le commit. Sinon son epoch est incrémenté,
+     * et un lecteur qui aurait lu des données antérieures au commit ne peut pas les remettre en cache.
+     */
+    public void evict(String tenantId, LocalDateTime... timestamps) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(tenantId, timestamps);
+                }
+            });
+        } else {
+            evictNow(tenantId, timestamps);
+        }
+    }
+
+    private void evictNow(String tenantId, LocalDateTime... timestamps) {
+        TenantDays tenantDays;
+        synchronized (cache) {
+            tenantDays = cache.get(tenantId);
+        }
+        if (tenantDays != null) {
+            tenantDays.evict(timestamps);
+        }
+    }
+
+    // Cache du tenant, créé au besoin et replacé en dernière position de la LRU
+    private TenantDays tenantDays(String tenantId) {
+        synchronized (cache) {
+            TenantDays tenantDays = cache.remove(tenantId);
+            if (tenantDays == null) {
+                tenantDays = new TenantDays();
+            }
+            cache.put(tenantId, tenantDays);
+            return tenantDays;
+        }
+    }
+
+    // Le jour courant n'est jamais mis en cache, pas plus que les jours au-delà de la rétention
+    private static boolean isCacheable(LocalDate day, LocalDate today, LocalDate oldestCached) {
+        return day.isBefore(today) && !day.isBefore(oldestCached);
+    }
+
+    private Map<LocalDate, DayStats> aggregate(String tenantId, LocalDate from, LocalDate toExclusive) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = toExclusive.atStartOfDay();
+        Map<LocalDate, DayStats> result = new TreeMap<>();
+        for (DailyTaskCount row : taskRepository.countCreatedPerDay(tenantId, start, end)) {
+            result.computeIfAbsent(row.day(), d -> new DayStats())
+                    .addCreated(row.priority(), row.completed(), row.count());
+        }
+        for (DailyTaskCount row : taskRepository.countCompletedPerDay(tenantId, start, end)) {
+            result.computeIfAbsent(row.day(), d -> new DayStats())
+                    .addCompletions(row.priority(), row.count());
+        }
+        return result;
+    }
+
+    // Les semaines commencent le lundi ; une semaine partiellement couverte ne compte que les jours demandés
+    private List<TaskStatsBucket> rollUp(Map<LocalDate, DayStats> days, Granularity granularity) {
+        Map<LocalDate, DayStats> buckets = new TreeMap<>();
+        days.forEach((day, stats) -> {
+            LocalDate start = granularity == Granularity.WEEK
+                    ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    : day;
+            buckets.computeIfAbsent(start, d -> new DayStats()).merge(stats);
+        });
+
+        List<TaskStatsBucket> result = new ArrayList<>(buckets.size());
+        buckets.forEach((start, stats) -> result.add(stats.toBucket(start)));
+        return result;
+    }
+
+    // Plage de jours [from, toExclusive[ absente du cache
+    private record DayRange(LocalDate from, LocalDate toExclusive) {
+    }
+
+    private static final class TenantDays {
+
+        private final ConcurrentNavigableMap<LocalDate, DayStats> days = new ConcurrentSkipListMap<>();
+        private long epoch;
+
+        void prune(LocalDate oldestCached) {
+            days.headMap(oldestCached).clear();
+        }
+
+        synchronized long epoch() {
+            return epoch;
+        }
+
+        // N'enregistre le calcul que si aucune invalidation n'est survenue depuis le début de la requête
+        synchronized void putIfUnchanged(LocalDate day, DayStats stats, long expectedEpoch) {
+            if (epoch == expectedEpoch) {
+                days.put(day, stats);
+            }
+        }
+
+        synchronized void evict(LocalDateTime... timestamps) {
+            epoch++;
+            for (LocalDateTime timestamp : timestamps) {
+                if (timestamp != null) {
+                    days.remove(timestamp.toLocalDate());
+                }
+            }
+        }
+    }
+
+    private static final class DayStats {
+
+        static final DayStats EMPTY = new DayStats();
+
+        // created[priorité * 2 + (complétée ? 1 : 0)]
+        private final long[] created = new long[PRIORITIES.length * 2];
+        private final long[] completions = new long[PRIORITIES.length];
+
+        void addCreated(Task.Priority priority, boolean completed, long count) {
+            created[priority.ordinal() * 2 + (completed ? 1 : 0)] += count;
+        }
+
+        void addCompletions(Task.Priority priority, long count) {
+            completions[priority.ordinal()] += count;
+        }
+
+        void merge(DayStats other) {
+            for (int i = 0; i < created.length; i++) {
+                created[i] += other.created[i];
+            }
+            for (int i = 0; i < completions.length; i++) {
+                completions[i] += other.completions[i];
+            }
+        }
+
+        TaskStatsBucket toBucket(LocalDate start) {
+            Map<Task.Priority, Long> createdByPriority = new EnumMap<>(Task.Priority.class);
+            Map<Task.Priority, Long> completionsByPriority = new EnumMap<>(Task.Priority.class);
+            long open = 0;
+            long done = 0;
+            long completionTotal = 0;
+            for (Task.Priority priority : PRIORITIES) {
+                long priorityOpen = created[priority.ordinal() * 2];
+                long priorityDone = created[priority.ordinal() * 2 + 1];
+                open += priorityOpen;
+                done += priorityDone;
+                createdByPriority.put(priority, priorityOpen + priorityDone);
+                completionsByPriority.put(priority, completions[priority.ordinal()]);
+                completionTotal += completions[priority.ordinal()];
+            }
+            return new TaskStatsBucket(start, open + done, open, done, createdByPriority,
+                    completionTotal, completionsByPriority);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.bassou.taskmanager.tenant;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class TenantConfig {
+
+    // Seule l'API REST est soumise au budget ; l'interface web et la console H2 restent sur le tenant par défaut
+    @Bean
+    public FilterRegistrationBean<TenantFilter> tenantFilter(TenantLimiter tenantLimiter) {
+        FilterRegistrationBean<TenantFilter> registration = new FilterRegistrationBean<>(new TenantFilter(tenantLimiter));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
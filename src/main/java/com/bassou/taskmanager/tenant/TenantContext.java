@@ -0,0 +1,52 @@
+package com.bassou.taskmanager.tenant;
+
+import java.util.regex.Pattern;
+
+/**
+ * Tenant (équipe) de la requête courante, porté par le thread qui la traite.
+ * Renseigné par {@link TenantFilter} et lu par TaskService pour filtrer toutes les requêtes.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Pattern VALID_TENANT = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    // Libération de la place réservée par la requête dans le budget du tenant
+    private static final ThreadLocal<Runnable> PERMIT = new ThreadLocal<>();
+
+    private TenantContext() {}
+
+    public static String getTenantId() {
+        String tenantId = CURRENT.get();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    public static void setTenantId(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    public static void bindPermit(Runnable release) {
+        PERMIT.set(release);
+    }
+
+    // Rend par anticipation la place de la requête, quand elle n'a plus besoin de connexion
+    public static void releasePermit() {
+        Runnable release = PERMIT.get();
+        if (release != null) {
+            PERMIT.remove();
+            release.run();
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        PERMIT.remove();
+    }
+
+    public static boolean isValid(String tenantId) {
+        return tenantId != null && VALID_TENANT.matcher(tenantId).matches();
+    }
+}
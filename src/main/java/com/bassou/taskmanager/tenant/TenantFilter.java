@@ -0,0 +1,65 @@
+package com.bassou.taskmanager.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lit l'en-tête X-Tenant-Id, l'expose via {@link TenantContext} le temps de la requête
+ * et applique le budget de concurrence du tenant. Sans en-tête, la requête est rattachée au tenant par défaut.
+ * L'en-tête n'est pas authentifié : l'isolation suppose que les clients déclarent leur propre équipe.
+ */
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final TenantLimiter tenantLimiter;
+
+    public TenantFilter(TenantLimiter tenantLimiter) {
+        this.tenantLimiter = tenantLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenantId = request.getHeader(TENANT_HEADER);
+        if (tenantId == null || tenantId.isBlank()) {
+            tenantId = TenantContext.DEFAULT_TENANT;
+        } else if (!TenantContext.isValid(tenantId)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + TENANT_HEADER);
+            return;
+        } else if (!tenantLimiter.isAllowed(tenantId)) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "Unknown tenant");
+            return;
+        }
+
+        TenantLimiter.Permit permit;
+        try {
+            permit = tenantLimiter.tryAcquire(tenantId);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        if (permit == null) {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Tenant budget exceeded");
+            return;
+        }
+
+        long start = System.nanoTime();
+        TenantContext.setTenantId(tenantId);
+        TenantContext.bindPermit(permit::release);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+            permit.release();
+            tenantLimiter.recordLatency(tenantId, System.nanoTime() - start);
+        }
+    }
+}
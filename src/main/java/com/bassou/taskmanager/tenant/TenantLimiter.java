@@ -0,0 +1,198 @@
+package com.bassou.taskmanager.tenant;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget de concurrence par tenant et métriques associées.
+ * Chaque requête tient au plus une connexion du pool : limiter les requêtes simultanées
+ * d'un tenant borne donc sa part de connexions et empêche une grosse équipe d'affamer les autres.
+ * <p>
+ * L'identifiant de tenant provient d'un en-tête non authentifié. Pour qu'un client ne puisse pas
+ * faire croître la mémoire ou la cardinalité des métriques en inventant des identifiants,
+ * seuls {@code max-tracked-tenants} tenants ont leur propre budget et leurs propres métriques ;
+ * les suivants partagent le budget {@link #OVERFLOW_TENANT}. Un tenant inactif depuis
+ * {@code idle-timeout} et sans requête en cours libère sa place (budget et métriques), pour que
+ * des identifiants vus une seule fois ne la conservent pas au détriment des tenants arrivés ensuite.
+ * Un budget global, égal à la taille du pool de connexions, s'ajoute aux budgets par tenant.
+ * <p>
+ * Le tenant par défaut (requêtes sans en-tête, dont l'interface web) dispose de tout le pool :
+ * un déploiement mono-équipe garde le comportement d'avant le découpage en tenants.
+ */
+@Component
+public class TenantLimiter {
+
+    public static final String OVERFLOW_TENANT = "_other";
+
+    private final int maxConcurrentRequests;
+    private final int poolSize;
+    private final int maxTrackedTenants;
+    private final long acquireTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final Set<String> allowedTenants;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Semaphore globalPermits;
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TenantLimiter(@Value("${taskmanager.tenant.max-concurrent-requests:4}") int maxConcurrentRequests,
+                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                         @Value("${taskmanager.tenant.max-tracked-tenants:100}") int maxTrackedTenants,
+                         @Value("${taskmanager.tenant.allowed-ids:}") Set<String> allowedTenants,
+                         @Value("${taskmanager.tenant.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                         @Value("${taskmanager.tenant.idle-timeout:PT10M}") Duration idleTimeout,
+                         MeterRegistry meterRegistry) {
+        this(maxConcurrentRequests, poolSize, maxTrackedTenants, allowedTenants, acquireTimeoutMs, idleTimeout,
+                meterRegistry, System::nanoTime);
+    }
+
+    TenantLimiter(int maxConcurrentRequests, int poolSize, int maxTrackedTenants, Set<String> allowedTenants,
+                  long acquireTimeoutMs, Duration idleTimeout, MeterRegistry meterRegistry, LongSupplier clock) {
+        // Un tenant ne peut jamais réserver plus de connexions que le pool n'en contient
+        this.maxConcurrentRequests = Math.min(maxConcurrentRequests, poolSize);
+        this.poolSize = poolSize;
+        this.maxTrackedTenants = maxTrackedTenants;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.allowedTenants = Set.copyOf(allowedTenants);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.globalPermits = new Semaphore(poolSize, true);
+    }
+
+    // Sans liste configurée, tout identifiant syntaxiquement valide est accepté
+    public boolean isAllowed(String tenantId) {
+        return allowedTenants.isEmpty()
+                || allowedTenants.contains(tenantId)
+                || TenantContext.DEFAULT_TENANT.equals(tenantId);
+    }
+
+    /**
+     * Réserve une place dans le budget du tenant puis dans le budget global.
+     * Renvoie null si l'un des deux reste saturé après le délai d'attente.
+     */
+    public Permit tryAcquire(String tenantId) throws InterruptedException {
+        Bucket bucket = bucket(tenantId);
+        Semaphore tenantPermits = bucket.permits;
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+
+        if (!tenantPermits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            return reject(bucket.name);
+        }
+        boolean acquired = false;
+        try {
+            acquired = globalPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!acquired) {
+                tenantPermits.release();
+            }
+        }
+        return acquired ? new Permit(tenantPermits) : reject(bucket.name);
+    }
+
+    public void recordLatency(String tenantId, long durationNanos) {
+        Timer.builder("taskmanager.tenant.latency")
+                .tag("tenant", bucket(tenantId).name)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Nombre de lignes renvoyées par une requête de liste, pour repérer les tenants les plus volumineux
+    public void recordRows(String tenantId, String operation, int rows) {
+        DistributionSummary.builder("taskmanager.tenant.rows")
+                .tag("tenant", bucket(tenantId).name)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    // Budget (et tag de métrique) du tenant ; au-delà de la limite, budget partagé
+    private Bucket bucket(String tenantId) {
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.get(tenantId);
+        if (bucket == null) {
+            boolean isDefault = TenantContext.DEFAULT_TENANT.equals(tenantId);
+            if (!isDefault && buckets.size() >= maxTrackedTenants) {
+                purgeIdle(now);
+            }
+            String name = isDefault || buckets.size() < maxTrackedTenants ? tenantId : OVERFLOW_TENANT;
+            bucket = buckets.computeIfAbsent(name, id -> new Bucket(id, isDefault ? poolSize : maxConcurrentRequests));
+        }
+        bucket.lastUsed = now;
+        return bucket;
+    }
+
+    // Libère la place des tenants inactifs sans requête en cours, ainsi que leurs métriques
+    private void purgeIdle(long now) {
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.isIdle(now) && buckets.remove(bucket.name, bucket)) {
+                meterRegistry.getMeters().stream()
+                        .filter(meter -> meter.getId().getName().startsWith("taskmanager.tenant.")
+                                && bucket.name.equals(meter.getId().getTag("tenant")))
+                        .forEach(meterRegistry::remove);
+            }
+        }
+    }
+
+    private Permit reject(String bucket) {
+        meterRegistry.counter("taskmanager.tenant.rejected", "tenant", bucket).increment();
+        return null;
+    }
+
+    private final class Bucket {
+
+        private final String name;
+        private final int capacity;
+        private final Semaphore permits;
+        private volatile long lastUsed;
+
+        private Bucket(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+            this.permits = new Semaphore(capacity, true);
+        }
+
+        // Le tenant par défaut et le budget partagé ne sont jamais libérés
+        private boolean isIdle(long now) {
+            return !TenantContext.DEFAULT_TENANT.equals(name)
+                    && !OVERFLOW_TENANT.equals(name)
+                    && now - lastUsed > idleTimeoutNanos
+                    && permits.availablePermits() == capacity;
+        }
+    }
+
+    /**
+     * Place réservée par une requête. La libération est idempotente : elle peut être anticipée
+     * (requête qui n'a plus besoin de connexion) puis répétée sans effet à la fin de la requête.
+     */
+    public final class Permit {
+
+        private final Semaphore tenantPermits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore tenantPermits) {
+            this.tenantPermits = tenantPermits;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                globalPermits.release();
+                tenantPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.bassou.taskmanager.benchmark;
+
+import com.bassou.taskmanager.TaskManagerApplication;
+import com.bassou.taskmanager.model.Task;
+import com.bassou.taskmanager.service.TaskService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare le débit de TaskService entre la configuration par défaut et le profil prod.
+ * Trois configurations sont mesurées :
+ * <ul>
+ *     <li>default : application.properties tel quel (H2 en mémoire, logs SQL et DEBUG) ;</li>
+ *     <li>default-disk : mêmes réglages, mais sur la base H2 sur disque du profil prod,
+ *     pour isoler l'effet des réglages de celui du stockage ;</li>
+ *     <li>prod : profil prod (H2 sur disque, pool et réglages Hibernate).</li>
+ * </ul>
+ * La fenêtre single-flight de 250 ms du profil prod est désactivée dans toutes les configurations :
+ * l'écart entre prod et default-disk ne mesure ainsi que les réglages Hikari/Hibernate.
+ * Chaque configuration démarre dans son propre contexte Spring, sur une base vide dans son propre
+ * répertoire temporaire. Les réglages propres au benchmark sont passés en arguments de ligne de
+ * commande, prioritaires sur application.properties et application-prod.properties
+ * (les propriétés de SpringApplicationBuilder#properties sont au contraire les moins prioritaires).
+ * L'ordre est alterné
+ * (A B C puis C B A) pour que le préchauffage du JIT ne favorise pas systématiquement
+ * la configuration mesurée en dernier ; le débit rapporté est la moyenne des deux passes.
+ * Désactivé par défaut (exécution longue) :
+ * mvn verify -Dbenchmark=true -Dit.test=TaskServiceThroughputIT
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("TaskService Benchmark")
+class TaskServiceThroughputIT {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+    private static final int SEED_TASKS = Integer.getInteger("benchmark.seed", 1000);
+    private static final long WARMUP_MS = Long.getLong("benchmark.warmupMs", 5_000);
+    private static final long MEASURE_MS = Long.getLong("benchmark.measureMs", 10_000);
+
+    // URL du profil prod, reprise pour la configuration default-disk
+    private static final String DISK_URL = "jdbc:h2:file:${taskmanager.data-dir}/taskdb;MODE=PostgreSQL;"
+            + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;QUERY_CACHE_SIZE=64";
+
+    private record Scenario(String name, String profile, boolean onDisk) {
+    }
+
+    private static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("default", null, false),
+            new Scenario("default-disk", null, true),
+            new Scenario("prod", "prod", true));
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("Débit TaskService : configuration par défaut vs profil prod")
+    void compareDefaultAndProdProfiles() throws Exception {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        List<Scenario> forward = new ArrayList<>(SCENARIOS);
+        List<Scenario> backward = new ArrayList<>(SCENARIOS);
+        Collections.reverse(backward);
+
+        int pass = 0;
+        for (List<Scenario> order : List.of(forward, backward)) {
+            pass++;
+            for (Scenario scenario : order) {
+                double ops = run(scenario, pass);
+                System.out.printf("[benchmark] passe %d %-12s : %10.0f ops/s%n", pass, scenario.name(), ops);
+                totals.merge(scenario.name(), ops, Double::sum);
+            }
+        }
+
+        double baseline = totals.get("default") / pass;
+        System.out.printf("%n[benchmark] %d threads, %d taches initiales, mesure %d ms, moyenne sur %d passes%n",
+                THREADS, SEED_TASKS, MEASURE_MS, pass);
+        for (Scenario scenario : SCENARIOS) {
+            double ops = totals.get(scenario.name()) / pass;
+            System.out.printf("[benchmark] %-12s : %10.0f ops/s (x%.2f)%n", scenario.name(), ops, ops / baseline);
+            assertTrue(ops > 0);
+        }
+    }
+
+    private double run(Scenario scenario, int pass) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.NONE);
+        if (scenario.profile() != null) {
+            builder.profiles(scenario.profile());
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--taskmanager.data-dir=" + dataDir.resolve(scenario.name() + "-" + pass),
+                "--taskmanager.single-flight.cache-window=0ms"));
+        if (scenario.onDisk()) {
+            args.add("--spring.datasource.url=" + DISK_URL);
+        }
+
+        try (ConfigurableApplicationContext context = builder.run(args.toArray(String[]::new))) {
+            TaskService taskService = context.getBean(TaskService.class);
+            List<Long> ids = seed(taskService);
+
+            measure(taskService, ids, WARMUP_MS);
+            return measure(taskService, ids, MEASURE_MS) * 1000.0 / MEASURE_MS;
+        }
+    }
+
+    private List<Long> seed(TaskService taskService) {
+        List<Long> ids = new ArrayList<>(SEED_TASKS);
+        for (int i = 0; i < SEED_TASKS; i++) {
+            Task task = new Task("Task " + i, "Benchmark description " + i);
+            task.setPriority(Task.Priority.values()[i % Task.Priority.values().length]);
+            ids.add(taskService.createTask(task).getId());
+        }
+        return ids;
+    }
+
+    // Mélange lecture/écriture représentatif de l'API : lecture par id, bascule, recherche, filtre, création
+    private long measure(TaskService taskService, List<Long> ids, long durationMs) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Long>> workers = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long operations = 0;
+                while (running.get()) {
+                    Long id = ids.get(random.nextInt(ids.size()));
+                    int op = random.nextInt(100);
+                    if (op < 50) {
+                        taskService.getTaskById(id);
+                    } else if (op < 70) {
+                        taskService.toggleTaskCompletion(id);
+                    } else if (op < 85) {
+                        taskService.searchTasksByTitle("Task " + random.nextInt(100));
+                    } else if (op < 95) {
+                        taskService.getTasksByStatus(random.nextBoolean());
+                    } else {
+                        taskService.createTask(new Task("Bench task", "Created during measurement"));
+                    }
+                    operations++;
+                }
+                return operations;
+            }));
+        }
+
+        Thread.sleep(durationMs);
+        running.set(false);
+        long total = 0;
+        for (Future<Long> worker : workers) {
+            total += worker.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return total;
+    }
+}
@@ -1,20 +1,25 @@
 package com.bassou.taskmanager.controller;
 
+import com.bassou.taskmanager.idempotency.IdempotencyStore;
 import com.bassou.taskmanager.model.Task;
+import com.bassou.taskmanager.service.TaskNotFoundException;
 import com.bassou.taskmanager.service.TaskService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -23,6 +28,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.hamcrest.Matchers.*;
 
 @WebMvcTest(TaskController.class)
+@Import(IdempotencyStore.class)
 @DisplayName("TaskController Integration Tests")
 class TaskControllerTest {
 
@@ -162,7 +168,7 @@ class TaskControllerTest {
     void shouldReturn404WhenUpdatingNonExistentTask() throws Exception {
         // Given
         when(taskService.updateTask(eq(999L), any(Task.class)))
-                .thenThrow(new RuntimeException("Tâche non trouvée"));
+                .thenThrow(new TaskNotFoundException(999L));
 
         // When & Then
         mockMvc.perform(put("/api/tasks/999")
@@ -205,7 +211,7 @@ class TaskControllerTest {
     @DisplayName("DELETE /api/tasks/{id} - Devrait retourner 404 lors de la suppression d'une tâche inexistante")
     void shouldReturn404WhenDeletingNonExistentTask() throws Exception {
         // Given
-        doThrow(new RuntimeException("Tâche non trouvée"))
+        doThrow(new TaskNotFoundException(999L))
                 .when(taskService).deleteTask(999L);
 
         // When & Then
@@ -244,4 +250,82 @@ class TaskControllerTest {
 
         verify(taskService, times(1)).searchTasksByTitle("Test");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("POST /api/tasks - Devrait rejouer la réponse d'origine pour une même Idempotency-Key")
+    void shouldReplayCreateWithSameIdempotencyKey() throws Exception {
+        // Given
+        when(taskService.createTask(any(Task.class))).thenReturn(testTask);
+
+        // When & Then
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/tasks")
+                            .header(IdempotencyStore.HEADER, "create-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testTask)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id", is(1)));
+        }
+
+        verify(taskService, times(1)).createTask(any(Task.class));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/tasks/{id}/toggle - Ne devrait pas rebasculer une tâche lors d'un rejeu")
+    void shouldNotToggleTwiceWithSameIdempotencyKey() throws Exception {
+        // Given
+        testTask.setCompleted(true);
+        when(taskService.toggleTaskCompletion(1L)).thenReturn(testTask);
+
+        // When & Then
+        mockMvc.perform(patch("/api/tasks/1/toggle").header(IdempotencyStore.HEADER, "toggle-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+        mockMvc.perform(patch("/api/tasks/1/toggle").header(IdempotencyStore.HEADER, "toggle-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.completed", is(true)));
+
+        verify(taskService, times(1)).toggleTaskCompletion(1L);
+    }
+
+    @Test
+    @DisplayName("PATCH /api/tasks/{id}/toggle - Ne devrait pas conserver une erreur transitoire pour une Idempotency-Key")
+    void shouldNotStoreTransientFailureWithIdempotencyKey() throws Exception {
+        // Given
+        when(taskService.toggleTaskCompletion(2L))
+                .thenThrow(new IllegalStateException("Timeout base de données"))
+                .thenReturn(testTask);
+
+        // When & Then
+        assertThrows(ServletException.class,
+                () -> mockMvc.perform(patch("/api/tasks/2/toggle").header(IdempotencyStore.HEADER, "toggle-2")));
+        mockMvc.perform(patch("/api/tasks/2/toggle").header(IdempotencyStore.HEADER, "toggle-2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+
+        verify(taskService, times(2)).toggleTaskCompletion(2L);
+    }
+
+    @Test
+    @DisplayName("POST /api/tasks - Devrait retourner 422 pour une Idempotency-Key réutilisée avec un autre contenu")
+    void shouldRejectIdempotencyKeyReusedWithDifferentBody() throws Exception {
+        // Given
+        when(taskService.createTask(any(Task.class))).thenReturn(testTask);
+        Task otherTask = new Task("Other Task", "Other Description");
+
+        // When & Then
+        mockMvc.perform(post("/api/tasks")
+                        .header(IdempotencyStore.HEADER, "create-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTask)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/tasks")
+                        .header(IdempotencyStore.HEADER, "create-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(otherTask)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(taskService, times(1)).createTask(any(Task.class));
+    }
+}
@@ -0,0 +1,235 @@
+package com.bassou.taskmanager.idempotency;
+
+import com.bassou.taskmanager.tenant.TenantContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IdempotencyStore Test Unit")
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(2, Duration.ofMinutes(1), Duration.ofSeconds(5), now::get);
+    }
+
+    private ResponseEntity<Integer> call() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(calls.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer la réponse conservée pour une même clé")
+    void shouldReplayStoredResponse() {
+        ResponseEntity<Integer> first = store.execute("key", "POST", 0, this::call);
+        ResponseEntity<Integer> replay = store.execute("key", "POST", 0, this::call);
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        assertEquals(first.getBody(), replay.getBody());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("Devrait distinguer les opérations et exécuter sans clé")
+    void shouldScopeKeysPerOperation() {
+        store.execute("key", "POST", 0, this::call);
+        store.execute("key", "PATCH", 0, this::call);
+        store.execute(null, "POST", 0, this::call);
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait expirer les réponses après le TTL")
+    void shouldExpireAfterTtl() {
+        store.execute("key", "POST", 0, this::call);
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        store.execute("key", "POST", 0, this::call);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait borner le nombre d'entrées")
+    void shouldEvictEldestWhenFull() {
+        store.execute("a", "POST", 0, this::call);
+        store.execute("b", "POST", 0, this::call);
+        store.execute("c", "POST", 0, this::call);
+        store.execute("a", "POST", 0, this::call);
+
+        assertEquals(4, calls.get());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas conserver une exécution en échec")
+    void shouldNotStoreFailures() {
+        assertThrows(IllegalStateException.class, () -> store.execute("key", "POST", 0, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        store.execute("key", "POST", 0, this::call);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une clé trop longue")
+    void shouldRejectTooLongKey() {
+        ResponseEntity<Integer> response = store.execute("k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), "POST", 0, this::call);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait fusionner les requêtes identiques simultanées")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        int threads = 8;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ResponseEntity<Integer>>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> store.execute("key", "POST", 0, () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return call();
+                })));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            for (Future<ResponseEntity<Integer>> response : responses) {
+                assertEquals(1, response.get(5, TimeUnit.SECONDS).getBody());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une clé réutilisée avec un autre contenu")
+    void shouldRejectKeyReusedWithDifferentFingerprint() {
+        store.execute("key", "POST", 1, this::call);
+        ResponseEntity<Integer> response = store.execute("key", "POST", 2, this::call);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait transmettre une Error aux doublons en attente puis libérer la clé")
+    void shouldPropagateErrorToWaitingDuplicateAndReleaseKey() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> leaderFailure = new AtomicReference<>();
+        AtomicReference<Throwable> duplicateFailure = new AtomicReference<>();
+        Thread leader = new Thread(() -> {
+            try {
+                store.execute("key", "POST", 0, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new StackOverflowError("boom");
+                });
+            } catch (Throwable ex) {
+                leaderFailure.set(ex);
+            }
+        });
+        leader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread duplicate = new Thread(() -> {
+            try {
+                store.execute("key", "POST", 0, this::call);
+            } catch (Throwable ex) {
+                duplicateFailure.set(ex);
+            }
+        });
+        duplicate.start();
+        // Le doublon est bloqué sur le résultat de la première exécution
+        awaitState(duplicate, Thread.State.TIMED_WAITING);
+        release.countDown();
+        leader.join(5_000);
+        duplicate.join(5_000);
+
+        assertInstanceOf(StackOverflowError.class, leaderFailure.get());
+        assertInstanceOf(StackOverflowError.class, duplicateFailure.get());
+        assertEquals(HttpStatus.CREATED, store.execute("key", "POST", 0, this::call).getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Devrait rendre la place du tenant puis répondre 409 si l'exécution d'origine dépasse l'attente")
+    void shouldReleasePermitAndTimeOutWaitingDuplicate() throws Exception {
+        store = new IdempotencyStore(2, Duration.ofMinutes(1), Duration.ofMillis(50), now::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = new Thread(() -> store.execute("key", "POST", 0, () -> {
+            started.countDown();
+            await(release);
+            return call();
+        }));
+        leader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicInteger releasedPermits = new AtomicInteger();
+        TenantContext.bindPermit(releasedPermits::incrementAndGet);
+
+        ResponseEntity<Integer> response = store.execute("key", "POST", 0, this::call);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(1, releasedPermits.get());
+        release.countDown();
+        leader.join(5_000);
+        assertEquals(1, calls.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, "Thread never reached " + state);
+            Thread.sleep(1);
+        }
+    }
+}
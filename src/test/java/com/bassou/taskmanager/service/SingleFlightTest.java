@@ -0,0 +1,235 @@
+package com.bassou.taskmanager.service;
+
+import com.bassou.taskmanager.tenant.TenantContext;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SingleFlight Test Unit")
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Devrait partager une requête en cours entre appels identiques simultanés")
+    void shouldCoalesceConcurrentCalls() throws Exception {
+        // Fenêtre large : un appel qui arrive juste après la fin de la requête est aussi fusionné
+        SingleFlight singleFlight = singleFlight(Duration.ofMinutes(1));
+        int threads = 8;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("all", null, () -> {
+                started.countDown();
+                await(release);
+                return queries.incrementAndGet();
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("all", null, queries::incrementAndGet)));
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, queries.get());
+            assertEquals(7.0 / 8, singleFlight.coalescingRatio(), 1e-9);
+            assertEquals(7.0, meterRegistry.get("taskmanager.reads")
+                    .tag("outcome", "coalesced").counter().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Sans fenêtre de cache, devrait réexécuter la requête une fois terminée")
+    void shouldNotReuseCompletedResultWithoutWindow() {
+        SingleFlight singleFlight = singleFlight(Duration.ZERO);
+
+        singleFlight.execute("all", null, queries::incrementAndGet);
+        singleFlight.execute("all", null, queries::incrementAndGet);
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    @DisplayName("Devrait réutiliser le résultat pendant la fenêtre de cache puis l'abandonner")
+    void shouldReuseResultWithinWindow() throws Exception {
+        SingleFlight singleFlight = singleFlight(Duration.ofMillis(100));
+
+        singleFlight.execute("all", null, queries::incrementAndGet);
+        Integer cached = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(1, cached);
+
+        Thread.sleep(300);
+        Integer refreshed = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(2, refreshed);
+    }
+
+    @Test
+    @DisplayName("Devrait distinguer arguments et tenants")
+    void shouldKeyByArgumentAndTenant() {
+        SingleFlight singleFlight = singleFlight(Duration.ofMinutes(1));
+
+        singleFlight.execute("search", "a", queries::incrementAndGet);
+        singleFlight.execute("search", "b", queries::incrementAndGet);
+        TenantContext.setTenantId("team-a");
+        singleFlight.execute("search", "a", queries::incrementAndGet);
+
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas conserver une requête en échec")
+    void shouldNotKeepFailures() {
+        SingleFlight singleFlight = singleFlight(Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("all", null, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Integer result = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(1, result);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas conserver une requête qui lève une Error")
+    void shouldNotKeepErrors() {
+        SingleFlight singleFlight = singleFlight(Duration.ofMinutes(1));
+
+        assertThrows(StackOverflowError.class, () -> singleFlight.execute("all", null, () -> {
+            throw new StackOverflowError("boom");
+        }));
+
+        Integer result = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(1, result);
+    }
+
+    @Test
+    @DisplayName("Devrait relancer la requête après une invalidation du tenant")
+    void shouldRequeryAfterInvalidate() {
+        SingleFlight singleFlight = singleFlight(Duration.ofMinutes(1));
+
+        singleFlight.execute("all", null, queries::incrementAndGet);
+        TenantContext.setTenantId("team-a");
+        singleFlight.execute("all", null, queries::incrementAndGet);
+        singleFlight.invalidate(TenantContext.DEFAULT_TENANT);
+
+        Integer otherTenant = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(2, otherTenant);
+        TenantContext.clear();
+        Integer refreshed = singleFlight.execute("all", null, queries::incrementAndGet);
+        assertEquals(3, refreshed);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser les appels au-delà du nombre maximal d'appels en attente")
+    void shouldRejectBeyondMaxWaiters() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ZERO, 1, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.execute("all", null, () -> {
+                started.countDown();
+                await(release);
+                return queries.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            AtomicReference<Thread> waiterThread = new AtomicReference<>();
+            Future<Integer> waiter = executor.submit(() -> {
+                waiterThread.set(Thread.currentThread());
+                return singleFlight.execute("all", null, queries::incrementAndGet);
+            });
+            awaitTimedWaiting(waiterThread);
+
+            ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                    () -> singleFlight.execute("all", null, queries::incrementAndGet));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+
+            release.countDown();
+            assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+            assertEquals(1, waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(1.0, meterRegistry.get("taskmanager.reads").tag("outcome", "rejected").counter().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait rendre le permis du tenant puis abandonner l'attente après le délai")
+    void shouldReleasePermitAndTimeOutWhileWaiting() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ZERO, 16, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.execute("all", null, () -> {
+                started.countDown();
+                await(release);
+                return queries.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            AtomicInteger releases = new AtomicInteger();
+            TenantContext.bindPermit(releases::incrementAndGet);
+
+            ResponseStatusException timedOut = assertThrows(ResponseStatusException.class,
+                    () -> singleFlight.execute("all", null, queries::incrementAndGet));
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+            assertEquals(1, releases.get());
+            release.countDown();
+            assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SingleFlight singleFlight(Duration cacheWindow) {
+        return new SingleFlight(cacheWindow, 16, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    private static void awaitTimedWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.get() == null || thread.get().getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Waiter never blocked on the shared result");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
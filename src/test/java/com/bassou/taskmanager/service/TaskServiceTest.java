@@ -2,7 +2,11 @@ package com.bassou.taskmanager.service;
 
 import com.bassou.taskmanager.model.Task;
 import com.bassou.taskmanager.repository.TaskRepository;
+import com.bassou.taskmanager.tenant.TenantContext;
+import com.bassou.taskmanager.tenant.TenantLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -10,11 +14,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +35,17 @@ public class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskStatsService taskStatsService;
+
+    @Spy
+    private TenantLimiter tenantLimiter = new TenantLimiter(4, 10, 100, Set.of(), 2000, Duration.ofMinutes(10),
+            new SimpleMeterRegistry());
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ZERO, 16, Duration.ofSeconds(5),
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private TaskService taskService;
 
@@ -41,6 +60,11 @@ public class TaskServiceTest {
         testTask.setPriority(Task.Priority.MEDIUM);
         testTask.setCompleted(false);
     }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
     @Test
     @DisplayName("Devrait creer une nouvelle tache ")
     void shouldCreateTask() {
@@ -67,35 +91,35 @@ public class TaskServiceTest {
         task2.setTitle("Task 2");
 
         List<Task> tasks = Arrays.asList(task2, testTask);
-        when(taskRepository.findAllByOrderByCreatedAtDesc()).thenReturn(tasks);
+        when(taskRepository.findByTenantIdOrderByCreatedAtDesc(TenantContext.DEFAULT_TENANT)).thenReturn(tasks);
 
         List<Task> allTasks = taskService.getAllTasks();
 
         assertNotNull(allTasks);
         assertEquals(2, allTasks.size());
-        verify(taskRepository, times(1)).findAllByOrderByCreatedAtDesc();
+        verify(taskRepository, times(1)).findByTenantIdOrderByCreatedAtDesc(TenantContext.DEFAULT_TENANT);
     }
 
     @Test
     @DisplayName("Recuperer une tache par ID")
     void shouldGetTaskById() {
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(testTask));
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
 
         Optional<Task> foundTask = taskService.getTaskById(1L);
         assertTrue(foundTask.isPresent());
         assertEquals(testTask.getId(), foundTask.get().getId());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT);
     }
     @Test
     @DisplayName("Devrait retourner Optional.empty pour un ID inexistant")
     void shouldNotGetTaskById() {
 
-        when(taskRepository.findById(99L)).thenReturn(Optional.empty());
+        when(taskRepository.findByIdAndTenantId(99L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.empty());
 
         Optional<Task> foundTask = taskService.getTaskById(99L);
 
         assertFalse(foundTask.isPresent());
-        verify(taskRepository, times(1)).findById(99L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(99L, TenantContext.DEFAULT_TENANT);
     }
     @Test
     @DisplayName("Devrait mettre à jour une tâche existante")
@@ -106,7 +130,7 @@ public class TaskServiceTest {
         updateTask.setPriority(Task.Priority.HIGH);
         updateTask.setCompleted(true);
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(testTask));
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
         when(taskRepository.save(any(Task.class))).thenReturn(testTask);
 
         Task result = taskService.updateTask(1L, updateTask);
@@ -115,40 +139,121 @@ public class TaskServiceTest {
         assertEquals("Update description", result.getDescription());
         assertEquals(Task.Priority.HIGH, result.getPriority());
         assertTrue(result.isCompleted());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT);
         verify(taskRepository, times(1)).save(any(Task.class));
     }
     @Test
     @DisplayName("Devrait lever une exception lors de la mise à jour d'une tâche inexistante")
     void shouldThrowExceptionWhenUpdatingNonExistentTask(){
 
-        when(taskRepository.findById(990L)).thenReturn(Optional.empty());
+        when(taskRepository.findByIdAndTenantId(990L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> taskService.updateTask(990L, testTask));
-        verify(taskRepository, times(1)).findById(990L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(990L, TenantContext.DEFAULT_TENANT);
         verify(taskRepository,never()).save(any(Task.class));
     }
     @Test
     @DisplayName("Devrait basculer le statut de complétion")
     void shouldToggleTaskCompletion() {
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(testTask));
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
         when(taskRepository.save(any(Task.class))).thenReturn(testTask);
 
         Task result = taskService.toggleTaskCompletion(1L);
         assertTrue(result.isCompleted());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT);
         verify(taskRepository, times(1)).save(any(Task.class));
     }
 
     @Test
     @DisplayName("Devrait supprimer une tâche existante")
     void shouldDeleteTask() {
-        when(taskRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(taskRepository).deleteById(1L);
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
+        doNothing().when(taskRepository).delete(testTask);
+
+        taskService.deleteTask(1L);
+        verify(taskRepository, times(1)).findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT);
+        verify(taskRepository, times(1)).delete(testTask);
+    }
+
+    @Test
+    @DisplayName("Devrait rattacher une nouvelle tâche au tenant courant")
+    void shouldAssignCurrentTenantOnCreate() {
+        TenantContext.setTenantId("team-a");
+        testTask.setTenantId("team-b");
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task createdTask = taskService.createTask(testTask);
+
+        assertEquals("team-a", createdTask.getTenantId());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas modifier la tâche d'un autre tenant")
+    void shouldNotToggleTaskOfAnotherTenant() {
+        TenantContext.setTenantId("team-a");
+        when(taskRepository.findByIdAndTenantId(1L, "team-a")).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> taskService.toggleTaskCompletion(1L));
+        verify(taskRepository, never()).save(any(Task.class));
+    }
+
+    @Test
+    @DisplayName("Devrait filtrer la recherche sur le tenant courant")
+    void shouldSearchWithinCurrentTenant() {
+        TenantContext.setTenantId("team-a");
+        when(taskRepository.findByTenantIdAndTitleContainingIgnoreCase("team-a", "Test"))
+                .thenReturn(List.of(testTask));
+
+        List<Task> result = taskService.searchTasksByTitle("Test");
+
+        assertEquals(1, result.size());
+        verify(taskRepository, never()).findByTitleContainingIgnoreCase(any());
+    }
+
+    @Test
+    @DisplayName("Devrait invalider les statistiques du jour de création lors d'une bascule")
+    void shouldEvictStatsOnToggle() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 0);
+        testTask.setCreatedAt(createdAt);
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
+        when(taskRepository.save(any(Task.class))).thenReturn(testTask);
+
+        taskService.toggleTaskCompletion(1L);
+
+        verify(taskStatsService, times(1)).evict(TenantContext.DEFAULT_TENANT, createdAt, null);
+    }
+
+    @Test
+    @DisplayName("Devrait invalider les statistiques du jour de création lors d'une création")
+    void shouldEvictStatsOnCreate() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 23, 59, 59);
+        testTask.setCreatedAt(createdAt);
+        when(taskRepository.save(any(Task.class))).thenReturn(testTask);
+
+        taskService.createTask(testTask);
+
+        verify(taskStatsService, times(1)).evict(TenantContext.DEFAULT_TENANT, createdAt, null);
+    }
+
+    @Test
+    @DisplayName("Devrait invalider les lectures partagées du tenant lors d'une suppression")
+    void shouldInvalidateSharedReadsOnDelete() {
+        when(taskRepository.findByIdAndTenantId(1L, TenantContext.DEFAULT_TENANT)).thenReturn(Optional.of(testTask));
 
         taskService.deleteTask(1L);
-        verify(taskRepository, times(1)).existsById(1L);
-        verify(taskRepository, times(1)).deleteById(1L);
+
+        verify(singleFlight, times(1)).invalidate(TenantContext.DEFAULT_TENANT);
+    }
+
+    @Test
+    @DisplayName("Devrait compter les lignes lues à chaque appel")
+    void shouldRecordRowsPerCall() {
+        when(taskRepository.findByTenantIdOrderByCreatedAtDesc(TenantContext.DEFAULT_TENANT)).thenReturn(List.of(testTask));
+
+        taskService.getAllTasks();
+        taskService.getAllTasks();
+
+        verify(tenantLimiter, times(2)).recordRows(TenantContext.DEFAULT_TENANT, "all", 1);
     }
 }
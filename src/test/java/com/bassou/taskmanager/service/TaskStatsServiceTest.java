@@ -0,0 +1,256 @@
+package com.bassou.taskmanager.service;
+
+import com.bassou.taskmanager.model.DailyTaskCount;
+import com.bassou.taskmanager.model.Task;
+import com.bassou.taskmanager.model.TaskStatsBucket;
+import com.bassou.taskmanager.repository.TaskRepository;
+import com.bassou.taskmanager.tenant.TenantContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskStatsService Test Unit")
+class TaskStatsServiceTest {
+
+    // Mercredi 17 janvier 2024
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 17);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private Clock clock;
+
+    private TaskStatsService taskStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ZoneId zone = ZoneId.systemDefault();
+        clock = Clock.fixed(TODAY.atTime(12, 0).atZone(zone).toInstant(), zone);
+        taskStatsService = new TaskStatsService(taskRepository, clock, 90, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Devrait agréger créations et complétions par jour")
+    void shouldAggregatePerDay() {
+        LocalDate monday = TODAY.minusDays(2);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of(
+                new DailyTaskCount(monday, Task.Priority.HIGH, false, 2L),
+                new DailyTaskCount(monday, Task.Priority.LOW, true, 1L)));
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of(
+                new DailyTaskCount(TODAY, Task.Priority.LOW, true, 1L)));
+
+        List<TaskStatsBucket> buckets = taskStatsService.getStats(TaskStatsService.Granularity.DAY, monday, TODAY);
+
+        assertEquals(3, buckets.size());
+        TaskStatsBucket first = buckets.get(0);
+        assertEquals(monday, first.start());
+        assertEquals(3, first.created());
+        assertEquals(2, first.open());
+        assertEquals(1, first.done());
+        assertEquals(2L, first.createdByPriority().get(Task.Priority.HIGH));
+        assertEquals(0, first.completions());
+        assertEquals(1, buckets.get(2).completions());
+    }
+
+    @Test
+    @DisplayName("Ne devrait recalculer que le jour courant une fois les jours clos en cache")
+    void shouldOnlyRecomputeCurrentDay() {
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Devrait recalculer un jour clos après invalidation")
+    void shouldRecomputeEvictedDay() {
+        LocalDate from = TODAY.minusDays(6);
+        LocalDate evicted = TODAY.minusDays(3);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.evict(TenantContext.DEFAULT_TENANT, evicted.atTime(9, 30));
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                evicted.atStartOfDay(), evicted.plusDays(1).atStartOfDay());
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas réagréger les jours en cache autour d'un jour invalidé")
+    void shouldOnlyQueryMissingRanges() {
+        LocalDate from = TODAY.minusDays(9);
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenAnswer(invocation -> {
+            ranges.add(new LocalDateTime[] {invocation.getArgument(1), invocation.getArgument(2)});
+            return List.of();
+        });
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        ranges.clear();
+        taskStatsService.evict(TenantContext.DEFAULT_TENANT,
+                TODAY.minusDays(7).atTime(8, 0), TODAY.minusDays(4).atTime(8, 0));
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        assertEquals(3, ranges.size());
+        for (LocalDate day = from; day.isBefore(TODAY); day = day.plusDays(1)) {
+            LocalDateTime start = day.atStartOfDay();
+            boolean queried = ranges.stream().anyMatch(range -> !start.isBefore(range[0]) && start.isBefore(range[1]));
+            boolean evicted = day.equals(TODAY.minusDays(7)) || day.equals(TODAY.minusDays(4));
+            assertEquals(evicted, queried, day.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas créer de cache pour un tenant qui écrit sans consulter les statistiques")
+    void shouldNotCacheTenantOnEvictOnly() {
+        taskStatsService = new TaskStatsService(taskRepository, clock, 90, 1);
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.evict("team-a", TODAY.minusDays(2).atStartOfDay());
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Devrait isoler le cache par tenant")
+    void shouldKeepCachePerTenant() {
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        TenantContext.setTenantId("team-a");
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository).countCreatedPerDay(eq("team-a"), eq(from.atStartOfDay()), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper les jours par semaine commençant le lundi")
+    void shouldRollUpPerWeek() {
+        LocalDate previousSunday = TODAY.minusDays(3);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of(
+                new DailyTaskCount(previousSunday, Task.Priority.MEDIUM, false, 4L),
+                new DailyTaskCount(TODAY.minusDays(2), Task.Priority.MEDIUM, false, 1L),
+                new DailyTaskCount(TODAY, Task.Priority.MEDIUM, true, 2L)));
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        List<TaskStatsBucket> buckets = taskStatsService.getStats(TaskStatsService.Granularity.WEEK,
+                previousSunday, TODAY);
+
+        assertEquals(2, buckets.size());
+        assertEquals(LocalDate.of(2024, 1, 8), buckets.get(0).start());
+        assertEquals(4, buckets.get(0).created());
+        assertEquals(LocalDate.of(2024, 1, 15), buckets.get(1).start());
+        assertEquals(3, buckets.get(1).created());
+        assertEquals(2, buckets.get(1).done());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un intervalle trop large")
+    void shouldRejectTooLargeRange() {
+        assertThrows(IllegalArgumentException.class, () -> taskStatsService.getStats(
+                TaskStatsService.Granularity.DAY, TODAY.minusYears(2), TODAY));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas mettre en cache un calcul concurrent d'une invalidation")
+    void shouldNotCacheComputationRacingWithEviction() {
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenAnswer(invocation -> {
+            // Une écriture validée pendant le calcul invalide un jour clos
+            taskStatsService.evict(TenantContext.DEFAULT_TENANT, TODAY.minusDays(2).atStartOfDay());
+            return List.of();
+        }).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository, times(2)).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas conserver les jours au-delà de la rétention")
+    void shouldNotCacheDaysBeyondRetention() {
+        taskStatsService = new TaskStatsService(taskRepository, clock, 3, 100);
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, TODAY.minusDays(3), TODAY);
+
+        // Seuls les jours au-delà de la rétention et le jour courant sont réagrégés
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+        verify(taskRepository).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.minusDays(3).atStartOfDay());
+        verify(taskRepository, times(2)).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Devrait abandonner le cache du tenant le moins récemment consulté")
+    void shouldEvictLeastRecentlyUsedTenant() {
+        taskStatsService = new TaskStatsService(taskRepository, clock, 90, 1);
+        LocalDate from = TODAY.minusDays(6);
+        when(taskRepository.countCreatedPerDay(any(), any(), any())).thenReturn(List.of());
+        when(taskRepository.countCompletedPerDay(any(), any(), any())).thenReturn(List.of());
+
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        TenantContext.setTenantId("team-a");
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+        TenantContext.clear();
+        taskStatsService.getStats(TaskStatsService.Granularity.DAY, from, TODAY);
+
+        verify(taskRepository, times(2)).countCreatedPerDay(TenantContext.DEFAULT_TENANT,
+                from.atStartOfDay(), TODAY.plusDays(1).atStartOfDay());
+    }
+}
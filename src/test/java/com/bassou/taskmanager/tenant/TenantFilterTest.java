@@ -0,0 +1,201 @@
+package com.bassou.taskmanager.tenant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TenantFilter Test Unit")
+class TenantFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private TenantLimiter limiter(int perTenant, int poolSize, int maxTracked, Set<String> allowed) {
+        return new TenantLimiter(perTenant, poolSize, maxTracked, allowed, 20, Duration.ofMinutes(10),
+                meterRegistry, now::get);
+    }
+
+    private MockHttpServletRequest request(String tenantId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        if (tenantId != null) {
+            request.addHeader(TenantFilter.TENANT_HEADER, tenantId);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Devrait exposer le tenant pendant la requête puis nettoyer le contexte")
+    void shouldExposeTenantDuringRequest() throws Exception {
+        TenantFilter filter = new TenantFilter(limiter(4, 10, 100, Set.of()));
+        AtomicReference<String> seen = new AtomicReference<>();
+        FilterChain chain = (req, res) -> seen.set(TenantContext.getTenantId());
+
+        filter.doFilter(request("team-a"), new MockHttpServletResponse(), chain);
+
+        assertEquals("team-a", seen.get());
+        assertEquals(TenantContext.DEFAULT_TENANT, TenantContext.getTenantId());
+    }
+
+    @Test
+    @DisplayName("Devrait utiliser le tenant par défaut sans en-tête")
+    void shouldUseDefaultTenantWithoutHeader() throws Exception {
+        TenantFilter filter = new TenantFilter(limiter(4, 10, 100, Set.of("team-a")));
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request(null), new MockHttpServletResponse(), (req, res) -> seen.set(TenantContext.getTenantId()));
+
+        assertEquals(TenantContext.DEFAULT_TENANT, seen.get());
+    }
+
+    @Test
+    @DisplayName("Devrait retourner 400 pour un en-tête invalide")
+    void shouldRejectInvalidHeader() throws Exception {
+        TenantFilter filter = new TenantFilter(limiter(4, 10, 100, Set.of()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("team a;drop"), response, chain);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    @DisplayName("Devrait retourner 403 pour un tenant hors de la liste configurée")
+    void shouldRejectUnknownTenant() throws Exception {
+        TenantFilter filter = new TenantFilter(limiter(4, 10, 100, Set.of("team-a")));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("team-b"), response, chain);
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    @DisplayName("Devrait retourner 429 quand le budget du tenant reste saturé")
+    void shouldRejectWhenTenantBudgetExhausted() throws Exception {
+        TenantLimiter limiter = limiter(1, 10, 100, Set.of());
+        TenantFilter filter = new TenantFilter(limiter);
+        TenantLimiter.Permit held = limiter.tryAcquire("team-a");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("team-a"), response, new MockFilterChain());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals(1.0, meterRegistry.get("taskmanager.tenant.rejected").tag("tenant", "team-a").counter().count());
+        held.release();
+    }
+
+    @Test
+    @DisplayName("Devrait retourner 429 quand le budget global (taille du pool) est saturé")
+    void shouldRejectWhenGlobalBudgetExhausted() throws Exception {
+        TenantLimiter limiter = limiter(4, 1, 100, Set.of());
+        TenantFilter filter = new TenantFilter(limiter);
+        TenantLimiter.Permit held = limiter.tryAcquire("team-a");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("team-b"), response, new MockFilterChain());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        held.release();
+        assertNotNull(limiter.tryAcquire("team-b"));
+    }
+
+    @Test
+    @DisplayName("Devrait libérer la place et nettoyer le contexte quand la chaîne lève une exception")
+    void shouldReleasePermitWhenChainThrows() throws Exception {
+        TenantLimiter limiter = limiter(1, 10, 100, Set.of());
+        TenantFilter filter = new TenantFilter(limiter);
+        FilterChain failing = (req, res) -> {
+            throw new ServletException("boom");
+        };
+
+        assertThrows(ServletException.class,
+                () -> filter.doFilter(request("team-a"), new MockHttpServletResponse(), failing));
+
+        assertEquals(TenantContext.DEFAULT_TENANT, TenantContext.getTenantId());
+        assertNotNull(limiter.tryAcquire("team-a"));
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper les tenants au-delà de la limite dans un budget partagé")
+    void shouldShareBudgetBeyondTrackedTenants() throws Exception {
+        TenantLimiter limiter = limiter(1, 10, 1, Set.of());
+        TenantLimiter.Permit first = limiter.tryAcquire("team-a");
+        TenantLimiter.Permit rotated = limiter.tryAcquire("team-b");
+
+        assertNotNull(first);
+        assertNotNull(rotated);
+        // team-c retombe dans le même budget partagé que team-b
+        assertNull(limiter.tryAcquire("team-c"));
+        limiter.recordRows("team-c", "all", 3);
+        assertEquals(1, meterRegistry.get("taskmanager.tenant.rows").tag("tenant", TenantLimiter.OVERFLOW_TENANT)
+                .summary().count());
+    }
+
+    @Test
+    @DisplayName("Devrait accorder tout le pool au tenant par défaut")
+    void shouldGiveWholePoolToDefaultTenant() throws Exception {
+        TenantLimiter limiter = limiter(1, 3, 100, Set.of());
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(limiter.tryAcquire(TenantContext.DEFAULT_TENANT));
+        }
+        assertNull(limiter.tryAcquire(TenantContext.DEFAULT_TENANT));
+    }
+
+    @Test
+    @DisplayName("Devrait libérer la place d'un tenant inactif pour un nouveau tenant")
+    void shouldReclaimIdleTenantSlot() throws Exception {
+        TenantLimiter limiter = limiter(1, 10, 1, Set.of());
+        limiter.tryAcquire("junk").release();
+        limiter.recordRows("junk", "all", 1);
+
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+        TenantLimiter.Permit permit = limiter.tryAcquire("team-a");
+
+        assertNotNull(permit);
+        // team-a a obtenu son propre budget : il n'est pas partagé avec un autre tenant
+        assertNotNull(limiter.tryAcquire("team-b"));
+        assertNull(limiter.tryAcquire("team-a"));
+        assertNull(meterRegistry.find("taskmanager.tenant.rows").tag("tenant", "junk").summary());
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas libérer la place d'un tenant qui a une requête en cours")
+    void shouldKeepBusyTenantSlot() throws Exception {
+        TenantLimiter limiter = limiter(1, 10, 1, Set.of());
+        TenantLimiter.Permit held = limiter.tryAcquire("team-a");
+
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+        limiter.recordRows("team-b", "all", 1);
+
+        assertEquals(1, meterRegistry.get("taskmanager.tenant.rows").tag("tenant", TenantLimiter.OVERFLOW_TENANT)
+                .summary().count());
+        held.release();
+    }
+}